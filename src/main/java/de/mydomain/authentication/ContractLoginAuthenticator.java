@@ -22,6 +22,12 @@ public class ContractLoginAuthenticator implements Authenticator {
 
     private static final Logger logger = Logger.getLogger(ContractLoginAuthenticator.class);
 
+    private final LoginAttributeWriteBehindBuffer attributeBuffer;
+
+    public ContractLoginAuthenticator(LoginAttributeWriteBehindBuffer attributeBuffer) {
+        this.attributeBuffer = attributeBuffer;
+    }
+
     /**
      * Wird von Keycloak aufgerufen, wenn dieser Authenticator an der Reihe ist.
      * Hier zeigt man normalerweise ein Login-Formular oder eine Eingabemaske an.
@@ -73,8 +79,10 @@ public class ContractLoginAuthenticator implements Authenticator {
 
             context.form().setInfo("Activation email sent to: " + user.getEmail());
 
-            // E-Mail senden
-            sendMail(realm, user, keycloakSession, "mailSubject", "mailTextBody", "mailHTMLBody");
+            // E-Mail senden, Zeitstempel nur bei erfolgreichem Versand merken
+            if (sendMail(realm, user, keycloakSession, "mailSubject", "mailTextBody", "mailHTMLBody")) {
+                attributeBuffer.recordActivationMail(realm, user, System.currentTimeMillis());
+            }
 
             // die Authentifizierung versucht wurde, aber weitere Schritte, wie E-Mail-Verifizierung, erforderlich!
             context.attempted();
@@ -82,6 +90,9 @@ public class ContractLoginAuthenticator implements Authenticator {
 
         }
 
+        // Login-Attribute nicht direkt schreiben, sondern gebündelt über den Puffer
+        attributeBuffer.recordLogin(realm, user, System.currentTimeMillis());
+
         context.setUser(user);
         context.success();
     }
@@ -140,8 +151,9 @@ public class ContractLoginAuthenticator implements Authenticator {
      *
      * @param realmModel the realm model representing the user's realm and containing SMTP configuration
      * @param userModel  the user model representing the newly registered user to whom the email is sent
+     * @return true if the email was sent, false if sending failed
      */
-    private void sendMail(RealmModel realmModel, UserModel userModel, KeycloakSession keycloakSession, String subject, String textBody, String htmlBody) {
+    private boolean sendMail(RealmModel realmModel, UserModel userModel, KeycloakSession keycloakSession, String subject, String textBody, String htmlBody) {
 
         final String _subject = getMessagesFromKeycloakTheme(realmModel, userModel, subject, keycloakSession);
         final String _textBody = getMessagesFromKeycloakTheme(realmModel, userModel, textBody, keycloakSession);
@@ -154,8 +166,10 @@ public class ContractLoginAuthenticator implements Authenticator {
                     _subject,
                     _textBody,
                     _htmlBody);
+            return true;
         } catch (EmailException e) {
             logger.error("Error sending Email.", e);
+            return false;
         }
     }
 
@@ -10,6 +10,7 @@ import org.keycloak.models.KeycloakSessionFactory;
 import org.keycloak.models.credential.PasswordCredentialModel;
 import org.keycloak.provider.ProviderConfigProperty;
 
+import java.nio.file.Paths;
 import java.util.List;
 
 public class ContractLoginAuthenticatorFactory implements AuthenticatorFactory {
@@ -20,22 +21,36 @@ public class ContractLoginAuthenticatorFactory implements AuthenticatorFactory {
     public static final String PROVIDER_ID = "contract-login-authenticator";
 
     /**
-     * Eine Singleton-Instanz des Authenticators halten.
-     * Authenticator-Klassen sind i. d. R. zustandslos (stateless),
+     * Standardwerte für den Write-Behind-Puffer der Login-Attribute.
+     * Überschreibbar z.B. per --spi-authenticator-contract-login-authenticator-flush-interval-seconds=60
+     */
+    private static final int DEFAULT_FLUSH_INTERVAL_SECONDS = 30;
+    private static final int DEFAULT_FLUSH_BATCH_SIZE = 100;
+    private static final int DEFAULT_MAX_PENDING_USERS = 10000;
+    private static final int DEFAULT_MAX_SNAPSHOT_AGE_SECONDS = 900;
+
+    /**
+     * Puffert die Login-Attribute (letzter Login, Zähler, Aktivierungs-Mail) und schreibt sie gebündelt.
+     */
+    private LoginAttributeWriteBehindBuffer attributeBuffer;
+
+    /**
+     * Eine einzige Instanz des Authenticators halten.
+     * Der Authenticator selbst hält keinen Request-Zustand,
      * daher kann man eine einzige Instanz für alle Requests wiederverwenden.
      */
-    private static final ContractLoginAuthenticator SINGLETON = new ContractLoginAuthenticator();
+    private ContractLoginAuthenticator authenticator;
 
     /**
      * Hier wird festgelegt, welches Authenticator-Objekt Keycloak tatsächlich verwendet.
-     * Da unser Authenticator stateless ist, kann man die Singleton-Instanz zurückgeben.
+     * Da unser Authenticator keinen Request-Zustand hält, kann man immer dieselbe Instanz zurückgeben.
      *
      * @param session
      * @return
      */
     @Override
     public Authenticator create(KeycloakSession session) {
-        return SINGLETON;
+        return authenticator;
     }
 
     /**
@@ -46,7 +61,18 @@ public class ContractLoginAuthenticatorFactory implements AuthenticatorFactory {
      */
     @Override
     public void init(Config.Scope config) {
-
+        String snapshotFile = config.get("snapshotFile");
+
+        attributeBuffer = new LoginAttributeWriteBehindBuffer(
+                config.getInt("flushIntervalSeconds", DEFAULT_FLUSH_INTERVAL_SECONDS),
+                config.getInt("flushBatchSize", DEFAULT_FLUSH_BATCH_SIZE),
+                config.getInt("maxPendingUsers", DEFAULT_MAX_PENDING_USERS),
+                snapshotFile == null || snapshotFile.isBlank() ? null : Paths.get(snapshotFile),
+                config.getInt("maxSnapshotAgeSeconds", DEFAULT_MAX_SNAPSHOT_AGE_SECONDS));
+
+        // Beim letzten Herunterfahren nicht mehr geschriebene Login-Attribute wieder einlesen
+        attributeBuffer.restoreSnapshot();
+        authenticator = new ContractLoginAuthenticator(attributeBuffer);
     }
 
     /**
@@ -57,16 +83,18 @@ public class ContractLoginAuthenticatorFactory implements AuthenticatorFactory {
      */
     @Override
     public void postInit(KeycloakSessionFactory factory) {
-
+        attributeBuffer.start(factory);
     }
 
     /**
      * Wird aufgerufen, wenn Keycloak heruntergefahren wird.
-     * Hier könnte man z.B. externe Verbindungen schließen.
+     * Hier werden die noch gepufferten Login-Attribute geschrieben bzw. im Snapshot abgelegt.
      */
     @Override
     public void close() {
-
+        if (attributeBuffer != null) {
+            attributeBuffer.close();
+        }
     }
 
     /**
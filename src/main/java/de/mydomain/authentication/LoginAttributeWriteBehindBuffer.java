@@ -0,0 +1,584 @@
+package de.mydomain.authentication;
+
+import org.jboss.logging.Logger;
+import org.keycloak.models.KeycloakSessionFactory;
+import org.keycloak.models.RealmModel;
+import org.keycloak.models.UserModel;
+import org.keycloak.models.utils.KeycloakModelUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Write-Behind-Puffer für Benutzer-Attribute, die bei jedem Login geschrieben werden
+ * (letzter Login, Login-Zähler, letzter Versand der Aktivierungs-Mail).
+ * <p>
+ * Statt pro Login eine eigene DB-Transaktion auszulösen, werden die Änderungen pro Benutzer
+ * im Speicher zusammengefasst und periodisch (bzw. beim Erreichen der Batch-Größe)
+ * in wenigen Batch-Transaktionen geschrieben.
+ * <p>
+ * Verlust-Policy: Es werden höchstens {@code maxPendingUsers} Benutzer gepuffert; Updates für
+ * weitere Benutzer werden verworfen. Schlägt ein Batch fehl (z.B. bei einem DB-Ausfall), bricht der
+ * Flush ab, der Batch wird zurück in den Puffer gelegt und erst beim nächsten regulären Intervall
+ * erneut versucht. Kann ein einzelner Benutzer nicht geschrieben werden (z.B. read-only), wird nur
+ * dessen Update zurückgelegt. Nach {@code MAX_WRITE_ATTEMPTS} Fehlversuchen wird ein Update verworfen.
+ * Verloren gehen damit die Updates, die bei vollem Puffer oder während des Herunterfahrens eintreffen,
+ * endgültig fehlschlagende Updates sowie alles, was beim Herunterfahren noch nicht geschrieben werden
+ * konnte (bis zu {@code maxPendingUsers} Benutzer, z.B. wenn die Datenbank vor dieser Factory geschlossen wird).
+ * <p>
+ * Mehrere Keycloak-Knoten haben jeweils einen eigenen Puffer. Die Zeitstempel werden deshalb nur
+ * geschrieben, wenn sie neuer als der gespeicherte Wert sind. Der Login-Zähler wird dagegen ohne
+ * Sperre gelesen, erhöht und zurückgeschrieben; flushen zwei Knoten denselben Benutzer gleichzeitig,
+ * können einzelne Erhöhungen verloren gehen. Der Zähler ist daher nur ein Näherungswert.
+ * <p>
+ * Ist eine Snapshot-Datei konfiguriert, werden Updates, die beim Herunterfahren nicht mehr
+ * geschrieben werden konnten, dort abgelegt und beim nächsten Start wieder eingelesen.
+ * Snapshots, die älter als {@code maxSnapshotAgeSeconds} sind, werden verworfen, da andere Knoten
+ * in der Zwischenzeit neuere Werte geschrieben haben können.
+ */
+public class LoginAttributeWriteBehindBuffer {
+
+    private static final Logger logger = Logger.getLogger(LoginAttributeWriteBehindBuffer.class);
+
+    public static final String ATTR_LAST_LOGIN = "lastLoginTimestamp";
+    public static final String ATTR_LOGIN_COUNT = "loginCount";
+    public static final String ATTR_LAST_ACTIVATION_MAIL = "lastActivationMailTimestamp";
+
+    private static final int SNAPSHOT_MAGIC = 0x434C4142;
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final int SNAPSHOT_HEADER_SIZE = 20;
+    private static final int SNAPSHOT_CHECKSUM_SIZE = 8;
+    private static final long NONE = -1;
+    private static final int MAX_WRITE_ATTEMPTS = 5;
+    private static final long ABORT_FLUSH_WAIT_SECONDS = 5;
+
+    private final long flushIntervalSeconds;
+    private final int flushBatchSize;
+    private final int maxPendingUsers;
+    private final Path snapshotFile;
+    private final long maxSnapshotAgeSeconds;
+
+    private final Map<String, PendingUpdate> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final AtomicLong droppedUpdates = new AtomicLong();
+
+    /**
+     * Nach einem fehlgeschlagenen Flush werden bis zum nächsten regulären Intervall keine
+     * durch die Batch-Größe ausgelösten Flushes gestartet.
+     */
+    private volatile boolean flushFailed;
+    private volatile boolean closed;
+
+    private volatile KeycloakSessionFactory sessionFactory;
+    private volatile ScheduledExecutorService scheduler;
+
+    /**
+     * @param flushIntervalSeconds Intervall, in dem der Puffer geleert wird
+     * @param flushBatchSize       Anzahl Benutzer pro Transaktion; wird sie erreicht, wird sofort geleert
+     * @param maxPendingUsers      Obergrenze gepufferter Benutzer, darüber hinaus werden Updates verworfen
+     * @param snapshotFile          Datei für nicht geschriebene Updates beim Herunterfahren, oder null (deaktiviert)
+     * @param maxSnapshotAgeSeconds maximales Alter eines Snapshots, ältere werden beim Start verworfen
+     */
+    public LoginAttributeWriteBehindBuffer(long flushIntervalSeconds, int flushBatchSize, int maxPendingUsers,
+                                           Path snapshotFile, long maxSnapshotAgeSeconds) {
+        this.flushIntervalSeconds = Math.max(1, flushIntervalSeconds);
+        this.flushBatchSize = Math.max(1, flushBatchSize);
+        this.maxPendingUsers = Math.max(this.flushBatchSize, maxPendingUsers);
+        this.snapshotFile = snapshotFile;
+        this.maxSnapshotAgeSeconds = Math.max(0, maxSnapshotAgeSeconds);
+    }
+
+    /**
+     * Liest einen beim letzten Herunterfahren geschriebenen Snapshot ein und löscht ihn anschließend.
+     * Ist die Datei beschädigt, zu alt oder hat sie eine andere Version, wird sie verworfen und
+     * der Puffer startet leer (Kaltstart).
+     */
+    public void restoreSnapshot() {
+        if (snapshotFile == null || !Files.isRegularFile(snapshotFile)) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < SNAPSHOT_HEADER_SIZE + SNAPSHOT_CHECKSUM_SIZE || size > Integer.MAX_VALUE) {
+                logger.warnf("Ignoring login attribute snapshot %s: invalid size %d", snapshotFile, size);
+                return;
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int payloadSize = (int) size - SNAPSHOT_CHECKSUM_SIZE;
+            if (checksum(buffer, payloadSize) != buffer.getLong(payloadSize)) {
+                logger.warnf("Ignoring login attribute snapshot %s: checksum mismatch", snapshotFile);
+                return;
+            }
+            if (buffer.getInt() != SNAPSHOT_MAGIC) {
+                logger.warnf("Ignoring login attribute snapshot %s: unknown format", snapshotFile);
+                return;
+            }
+            int version = buffer.getInt();
+            if (version != SNAPSHOT_VERSION) {
+                logger.warnf("Ignoring login attribute snapshot %s: version %d, expected %d", snapshotFile, version, SNAPSHOT_VERSION);
+                return;
+            }
+            long ageMillis = System.currentTimeMillis() - buffer.getLong();
+            if (ageMillis < 0 || ageMillis > TimeUnit.SECONDS.toMillis(maxSnapshotAgeSeconds)) {
+                logger.warnf("Ignoring login attribute snapshot %s: written %d seconds ago, maximum is %d",
+                        snapshotFile, TimeUnit.MILLISECONDS.toSeconds(ageMillis), maxSnapshotAgeSeconds);
+                return;
+            }
+
+            int count = buffer.getInt();
+            List<PendingUpdate> restored = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                restored.add(PendingUpdate.read(buffer));
+            }
+
+            int dropped = 0;
+            for (PendingUpdate update : restored) {
+                if (pending.size() >= maxPendingUsers) {
+                    dropped++;
+                    continue;
+                }
+                pending.putIfAbsent(update.key(), update);
+            }
+            logger.infof("Restored %d pending login attribute updates from %s (%d dropped)", restored.size() - dropped, snapshotFile, dropped);
+        } catch (IOException | RuntimeException e) {
+            logger.warnf(e, "Ignoring unreadable login attribute snapshot %s", snapshotFile);
+        } finally {
+            deleteSnapshot();
+        }
+    }
+
+    /**
+     * Startet den periodischen Flush. Wird aus {@code postInit} der Factory aufgerufen,
+     * da erst dort die {@link KeycloakSessionFactory} zur Verfügung steht.
+     *
+     * @param sessionFactory die Session-Factory, mit der die Batch-Transaktionen geöffnet werden
+     */
+    public synchronized void start(KeycloakSessionFactory sessionFactory) {
+        if (scheduler != null) {
+            return;
+        }
+        this.sessionFactory = sessionFactory;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "contract-login-attribute-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            flushFailed = false;
+            flushSafely();
+        }, flushIntervalSeconds, flushIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Merkt einen erfolgreichen Login vor: setzt den Zeitstempel und erhöht den Zähler.
+     */
+    public void recordLogin(RealmModel realm, UserModel user, long timestamp) {
+        update(realm, user, update -> {
+            update.lastLogin = timestamp;
+            update.loginCountDelta++;
+        });
+    }
+
+    /**
+     * Merkt den Versand einer Aktivierungs-Mail vor.
+     */
+    public void recordActivationMail(RealmModel realm, UserModel user, long timestamp) {
+        update(realm, user, update -> update.lastActivationMail = timestamp);
+    }
+
+    /**
+     * Stoppt den periodischen Flush und schreibt alle noch gepufferten Änderungen.
+     * Was dabei nicht mehr geschrieben werden kann, landet im Snapshot (falls konfiguriert).
+     * Läuft beim Herunterfahren noch ein Flush, der nicht rechtzeitig fertig wird, wird er abgebrochen
+     * und auf einen weiteren Flush verzichtet, damit nicht zwei Flushes gleichzeitig den Puffer leeren.
+     * Der Snapshot wird trotzdem geschrieben.
+     * Updates, die danach noch eintreffen, werden verworfen.
+     * Wird aus {@code close()} der Factory aufgerufen.
+     */
+    public synchronized void close() {
+        closed = true;
+
+        ScheduledExecutorService current = scheduler;
+        if (current != null) {
+            scheduler = null;
+            current.shutdown();
+            boolean terminated;
+            try {
+                terminated = current.awaitTermination(flushIntervalSeconds, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                terminated = false;
+            }
+
+            if (!terminated) {
+                // Laufenden Flush abbrechen: er nimmt danach keine weiteren Einträge aus dem Puffer
+                current.shutdownNow();
+                try {
+                    current.awaitTermination(ABORT_FLUSH_WAIT_SECONDS, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                logger.warnf("Login attribute flush did not finish in time, skipping final flush of %d users", pending.size());
+                writeSnapshot();
+                return;
+            }
+        }
+
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("Error flushing login attribute buffer.", e);
+        }
+        writeSnapshot();
+
+        if (droppedUpdates.get() > 0) {
+            logger.warnf("%d login attribute updates were dropped since startup", droppedUpdates.get());
+        }
+    }
+
+    private void update(RealmModel realm, UserModel user, Consumer<PendingUpdate> change) {
+        if (closed) {
+            long dropped = droppedUpdates.incrementAndGet();
+            logger.debugf("Login attribute buffer closed, dropping update for user %s (%d dropped so far)", user.getId(), dropped);
+            return;
+        }
+
+        String key = PendingUpdate.key(realm.getId(), user.getId());
+
+        if (!pending.containsKey(key) && pending.size() >= maxPendingUsers) {
+            long dropped = droppedUpdates.incrementAndGet();
+            if (dropped == 1 || dropped % 1000 == 0) {
+                logger.warnf("Login attribute buffer full (%d users), %d updates dropped so far", maxPendingUsers, dropped);
+            }
+            return;
+        }
+
+        pending.compute(key, (k, existing) -> {
+            PendingUpdate update = existing != null ? existing : new PendingUpdate(realm.getId(), user.getId());
+            change.accept(update);
+            return update;
+        });
+
+        if (pending.size() >= flushBatchSize) {
+            scheduleFlush();
+        }
+    }
+
+    private void scheduleFlush() {
+        ScheduledExecutorService current = scheduler;
+        if (current != null && !flushFailed && flushScheduled.compareAndSet(false, true)) {
+            try {
+                current.execute(this::flushSafely);
+            } catch (RuntimeException e) {
+                flushScheduled.set(false);
+            }
+        }
+    }
+
+    private void flushSafely() {
+        flushScheduled.set(false);
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("Error flushing login attribute buffer.", e);
+        }
+    }
+
+    /**
+     * Schreibt den Puffer in Batches. Schlägt ein Batch fehl, wird er zurück in den Puffer gelegt und
+     * der Flush abgebrochen; die übrigen Einträge bleiben unangetastet im Puffer.
+     */
+    private void flush() {
+        if (sessionFactory == null || pending.isEmpty()) {
+            return;
+        }
+
+        List<PendingUpdate> failed = new ArrayList<>();
+        List<PendingUpdate> batch = new ArrayList<>(flushBatchSize);
+        boolean ok = true;
+        for (String key : pending.keySet()) {
+            if (Thread.currentThread().isInterrupted()) {
+                // Abgebrochen beim Herunterfahren, die übrigen Einträge landen im Snapshot
+                break;
+            }
+            PendingUpdate update = pending.remove(key);
+            if (update == null) {
+                continue;
+            }
+            batch.add(update);
+            if (batch.size() >= flushBatchSize) {
+                ok = writeBatch(batch, failed);
+                batch = new ArrayList<>(flushBatchSize);
+                if (!ok) {
+                    break;
+                }
+            }
+        }
+        if (ok && !batch.isEmpty()) {
+            ok = writeBatch(batch, failed);
+        }
+        if (!ok) {
+            flushFailed = true;
+        }
+
+        int lost = 0;
+        for (PendingUpdate update : failed) {
+            if (!requeue(update)) {
+                lost++;
+            }
+        }
+        if (lost > 0) {
+            logger.errorf("%d login attribute updates lost (buffer full or %d write attempts failed).", lost, MAX_WRITE_ATTEMPTS);
+        }
+    }
+
+    /**
+     * Legt ein fehlgeschlagenes Update zurück in den Puffer. Liegt für den Benutzer bereits ein neueres
+     * Update vor, werden beide zusammengeführt; ein neuer Eintrag wird nur bei freiem Platz angelegt.
+     *
+     * @return false, wenn der Puffer voll ist oder das Update zu oft fehlgeschlagen ist und verworfen wurde
+     */
+    private boolean requeue(PendingUpdate update) {
+        if (++update.failedAttempts >= MAX_WRITE_ATTEMPTS) {
+            logger.warnf("Dropping login attribute update for user %s after %d failed attempts", update.userId, update.failedAttempts);
+            return false;
+        }
+
+        boolean[] added = {false};
+        pending.compute(update.key(), (k, newer) -> {
+            if (newer != null) {
+                added[0] = true;
+                return PendingUpdate.mergeNewer(newer, update);
+            }
+            if (pending.size() < maxPendingUsers) {
+                added[0] = true;
+                return update;
+            }
+            return null;
+        });
+        return added[0];
+    }
+
+    /**
+     * Schreibt einen Batch in einer einzigen Transaktion. Fehler einzelner Benutzer werden abgefangen,
+     * damit sie nicht den ganzen Batch zurückrollen.
+     *
+     * @param failed nimmt die Updates auf, die erneut versucht werden sollen
+     * @return false, wenn die Transaktion fehlgeschlagen ist (der ganze Batch landet dann in {@code failed})
+     */
+    private boolean writeBatch(List<PendingUpdate> batch, List<PendingUpdate> failed) {
+        List<PendingUpdate> failedUsers = new ArrayList<>();
+        try {
+            KeycloakModelUtils.runJobInTransaction(sessionFactory, session -> {
+                for (PendingUpdate update : batch) {
+                    try {
+                        RealmModel realm = session.realms().getRealm(update.realmId);
+                        if (realm == null) {
+                            continue;
+                        }
+                        UserModel user = session.users().getUserById(realm, update.userId);
+                        if (user == null) {
+                            continue;
+                        }
+                        update.applyTo(user);
+                    } catch (RuntimeException e) {
+                        logger.warnf("Error writing login attributes for user %s: %s", update.userId, e.getMessage());
+                        failedUsers.add(update);
+                    }
+                }
+            });
+            failed.addAll(failedUsers);
+            return true;
+        } catch (RuntimeException e) {
+            logger.errorf("Error writing login attribute batch of %d users, retrying at next interval: %s", batch.size(), e.getMessage());
+            logger.debug("Login attribute batch failure", e);
+            failed.addAll(batch);
+            return false;
+        }
+    }
+
+    /**
+     * Schreibt die noch gepufferten Updates in die Snapshot-Datei.
+     * Die Datei wird zuerst unter einem temporären Namen geschrieben und dann umbenannt,
+     * damit beim nächsten Start nie eine halb geschriebene Datei gelesen wird.
+     */
+    private void writeSnapshot() {
+        if (snapshotFile == null) {
+            return;
+        }
+        if (pending.isEmpty()) {
+            deleteSnapshot();
+            return;
+        }
+
+        List<PendingUpdate> updates = new ArrayList<>(pending.values());
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(SNAPSHOT_VERSION);
+            out.writeLong(System.currentTimeMillis());
+            out.writeInt(updates.size());
+            for (PendingUpdate update : updates) {
+                update.write(out);
+            }
+            out.flush();
+
+            ByteBuffer payload = ByteBuffer.wrap(bytes.toByteArray());
+            out.writeLong(checksum(payload, payload.capacity()));
+            out.flush();
+
+            Path parent = snapshotFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tempFile = snapshotFile.resolveSibling(snapshotFile.getFileName() + ".tmp");
+            Files.write(tempFile, bytes.toByteArray());
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.infof("Saved %d pending login attribute updates to %s", updates.size(), snapshotFile);
+        } catch (IOException e) {
+            logger.errorf(e, "Error writing login attribute snapshot, %d user updates lost.", updates.size());
+        }
+    }
+
+    private void deleteSnapshot() {
+        try {
+            Files.deleteIfExists(snapshotFile);
+        } catch (IOException e) {
+            logger.warnf(e, "Could not delete login attribute snapshot %s", snapshotFile);
+        }
+    }
+
+    private static long checksum(ByteBuffer buffer, int length) {
+        CRC32 crc = new CRC32();
+        ByteBuffer view = buffer.duplicate();
+        view.position(0).limit(length);
+        crc.update(view);
+        return crc.getValue();
+    }
+
+    /**
+     * Zusammengefasste Änderungen eines Benutzers seit dem letzten Flush.
+     * Solange das Objekt im Puffer liegt, werden die Felder nur innerhalb von
+     * {@link ConcurrentHashMap#compute} verändert. Gelesen (und beim Zurücklegen geändert) werden sie
+     * nur vom Flush-Thread nach {@code remove()} bzw. beim Herunterfahren, nachdem keine Updates mehr
+     * angenommen werden. Beim Einlesen des Snapshots wird das Objekt befüllt, bevor es in den Puffer gelangt.
+     */
+    private static class PendingUpdate {
+
+        private final String realmId;
+        private final String userId;
+
+        private Long lastLogin;
+        private Long lastActivationMail;
+        private long loginCountDelta;
+        private int failedAttempts;
+
+        private PendingUpdate(String realmId, String userId) {
+            this.realmId = realmId;
+            this.userId = userId;
+        }
+
+        private static String key(String realmId, String userId) {
+            return realmId + ":" + userId;
+        }
+
+        private String key() {
+            return key(realmId, userId);
+        }
+
+        /**
+         * Führt ein älteres (z.B. fehlgeschlagenes) Update mit diesem, neueren Update zusammen.
+         */
+        private static PendingUpdate mergeNewer(PendingUpdate newer, PendingUpdate older) {
+            if (newer.lastLogin == null) {
+                newer.lastLogin = older.lastLogin;
+            }
+            if (newer.lastActivationMail == null) {
+                newer.lastActivationMail = older.lastActivationMail;
+            }
+            newer.loginCountDelta += older.loginCountDelta;
+            newer.failedAttempts = Math.max(newer.failedAttempts, older.failedAttempts);
+            return newer;
+        }
+
+        /**
+         * Zeitstempel werden nur geschrieben, wenn sie neuer als der gespeicherte Wert sind,
+         * damit ein verspäteter Flush eines anderen Knotens sie nicht zurücksetzt.
+         */
+        private void applyTo(UserModel user) {
+            if (lastLogin != null && lastLogin > parseLong(user.getFirstAttribute(ATTR_LAST_LOGIN))) {
+                user.setSingleAttribute(ATTR_LAST_LOGIN, String.valueOf(lastLogin));
+            }
+            if (lastActivationMail != null && lastActivationMail > parseLong(user.getFirstAttribute(ATTR_LAST_ACTIVATION_MAIL))) {
+                user.setSingleAttribute(ATTR_LAST_ACTIVATION_MAIL, String.valueOf(lastActivationMail));
+            }
+            if (loginCountDelta > 0) {
+                user.setSingleAttribute(ATTR_LOGIN_COUNT, String.valueOf(parseLong(user.getFirstAttribute(ATTR_LOGIN_COUNT)) + loginCountDelta));
+            }
+        }
+
+        private void write(DataOutputStream out) throws IOException {
+            writeString(out, realmId);
+            writeString(out, userId);
+            out.writeLong(lastLogin != null ? lastLogin : NONE);
+            out.writeLong(lastActivationMail != null ? lastActivationMail : NONE);
+            out.writeLong(loginCountDelta);
+        }
+
+        private static PendingUpdate read(ByteBuffer in) {
+            PendingUpdate update = new PendingUpdate(readString(in), readString(in));
+            long lastLogin = in.getLong();
+            long lastActivationMail = in.getLong();
+            update.lastLogin = lastLogin != NONE ? lastLogin : null;
+            update.lastActivationMail = lastActivationMail != NONE ? lastActivationMail : null;
+            update.loginCountDelta = in.getLong();
+            return update;
+        }
+
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(ByteBuffer in) {
+            byte[] bytes = new byte[in.getInt()];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private static long parseLong(String value) {
+            if (value == null) {
+                return 0;
+            }
+            try {
+                return Long.parseLong(value);
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+    }
+}